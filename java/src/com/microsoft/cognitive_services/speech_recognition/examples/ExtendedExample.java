@@ -28,8 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.file.Paths;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -65,50 +64,15 @@ public class ExtendedExample extends JPanel implements ActionListener {
   private final JComboBox<Language> languageBox;
   private final JComboBox<OutputFormat> formatBox;
 
-  private static final int MIC_SAMPLE_RATE = 16000;
-  private static final int MIC_CHANNEL_COUNT = 1;
-  private static final int MIC_BITS_PER_SAMPLE = 16;
-  private static final int MIC_BYTES_PER_SAMPLE = MIC_BITS_PER_SAMPLE / 8;
-  private static final int MIC_BYTE_RATE = MIC_SAMPLE_RATE * MIC_BYTES_PER_SAMPLE;
-  private static final byte[] WAV_HEADER;
+  private static final int MIC_SAMPLE_RATE = SpeechClientREST.SAMPLE_RATE;
+  private static final int MIC_CHANNEL_COUNT = SpeechClientREST.CHANNEL_COUNT;
+  private static final int MIC_BITS_PER_SAMPLE = SpeechClientREST.BITS_PER_SAMPLE;
+  private static final int MIC_BYTE_RATE = SpeechClientREST.BYTE_RATE;
 
   private volatile boolean bootstrapped = false;
   private AtomicBoolean recording = new AtomicBoolean(false);
   private SpeechClientREST speechClient;
 
-  static {
-    ByteBuffer buffer = ByteBuffer.allocate(44);
-    buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-    // RIFF identifier
-    buffer.put("RIFF".getBytes());
-    // file length, we dont know ahead of time about the 
-    // length of audio to stream, So setting this to 0.
-    buffer.putInt(0);
-    // RIFF type & Format
-    buffer.put("WAVEfmt ".getBytes());
-    // format chunk length
-    buffer.putInt(16);
-    // sample format (raw)
-    buffer.putShort((short) 1);
-    // channel count (1)
-    buffer.putShort((short) MIC_CHANNEL_COUNT);
-    // sample rate
-    buffer.putInt(MIC_SAMPLE_RATE);
-    // byte rate (sample rate * block align)
-    buffer.putInt(MIC_BYTE_RATE);
-    // block align (channel count * bytes per sample)
-    buffer.putShort((short) MIC_BYTES_PER_SAMPLE);
-    // bits per sample
-    buffer.putShort((short) MIC_BITS_PER_SAMPLE);
-    // data chunk identifier
-    buffer.put("data".getBytes());
-    // data chunk length
-    buffer.putInt(40);
-
-    WAV_HEADER = buffer.array();
-  }
-
   public ExtendedExample() {
 
     super(new BorderLayout());
@@ -185,6 +149,17 @@ public class ExtendedExample extends JPanel implements ActionListener {
       bootstrapped = true;
 
       speechClient = new SpeechClientREST(auth);
+
+      // run with -DtrafficLog=<file> to record all requests, see TrafficReplay.
+      String trafficLog = System.getProperty("trafficLog");
+      if (trafficLog != null) {
+        try {
+          speechClient.setRecorder(new TrafficLog(Paths.get(trafficLog)));
+        } catch (IOException error) {
+          log.append(String.format("Traffic log is not available (%s).\n", error.getMessage()));
+        }
+      }
+
       openButton.setEnabled(true);
       micButton.setEnabled(true);
       keyField.setEnabled(false);
@@ -258,7 +233,7 @@ public class ExtendedExample extends JPanel implements ActionListener {
 
       byte[] buffer = new byte[1024];
 
-      source.write(WAV_HEADER);
+      source.write(SpeechClientREST.WAV_HEADER);
       
       // 15 seconds of audio in bytes =
       // (byte rate per second = 16000 (samples per second) * 2 (bytes per sample)) * 15 (seconds)
@@ -37,7 +37,13 @@ public class SimpleExample {
 
     SpeechClientREST client = new SpeechClientREST(new Authentication(key));
 
-    InputStream input = new FileInputStream(Paths.get(filepath).toFile());
-    System.out.println(client.process(input));
+    // run with -DtrafficLog=<file> to record the request, see TrafficReplay.
+    String trafficLog = System.getProperty("trafficLog");
+    try (TrafficLog recorder = trafficLog != null ? new TrafficLog(Paths.get(trafficLog)) : null) {
+      client.setRecorder(recorder);
+
+      InputStream input = new FileInputStream(Paths.get(filepath).toFile());
+      System.out.println(client.process(input));
+    }
   }
 }
@@ -27,6 +27,8 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.stream.Collectors;
@@ -40,12 +42,56 @@ public class SpeechClientREST {
   private static final String REQUEST_URI = "https://speech.platform.bing.com/speech/recognition/%s/cognitiveservices/v1";
   private static final String PARAMETERS = "language=%s&format=%s";
 
+  // The audio format advertised in the Content-type header.
+  static final int SAMPLE_RATE = 16000;
+  static final int CHANNEL_COUNT = 1;
+  static final int BITS_PER_SAMPLE = 16;
+  static final int BYTES_PER_SAMPLE = BITS_PER_SAMPLE / 8;
+  static final int BYTE_RATE = SAMPLE_RATE * BYTES_PER_SAMPLE;
+  static final int WAV_HEADER_LENGTH = 44;
+  static final byte[] WAV_HEADER;
+
   private RecognitionMode mode = RecognitionMode.Interactive;
   private Language language = Language.en_US;
   private OutputFormat format = OutputFormat.Simple;
+  private String endpoint = REQUEST_URI;
+  private volatile TrafficRecorder recorder;
 
   private final Authentication auth;
 
+  static {
+    ByteBuffer buffer = ByteBuffer.allocate(WAV_HEADER_LENGTH);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    // RIFF identifier
+    buffer.put("RIFF".getBytes());
+    // file length, we dont know ahead of time about the 
+    // length of audio to stream, So setting this to 0.
+    buffer.putInt(0);
+    // RIFF type & Format
+    buffer.put("WAVEfmt ".getBytes());
+    // format chunk length
+    buffer.putInt(16);
+    // sample format (raw)
+    buffer.putShort((short) 1);
+    // channel count (1)
+    buffer.putShort((short) CHANNEL_COUNT);
+    // sample rate
+    buffer.putInt(SAMPLE_RATE);
+    // byte rate (sample rate * block align)
+    buffer.putInt(BYTE_RATE);
+    // block align (channel count * bytes per sample)
+    buffer.putShort((short) BYTES_PER_SAMPLE);
+    // bits per sample
+    buffer.putShort((short) BITS_PER_SAMPLE);
+    // data chunk identifier
+    buffer.put("data".getBytes());
+    // data chunk length
+    buffer.putInt(40);
+
+    WAV_HEADER = buffer.array();
+  }
+
   public SpeechClientREST(Authentication auth){
     this.auth = auth;
   }
@@ -74,18 +120,42 @@ public class SpeechClientREST {
     this.format = format;
   }
 
-  private URL buildRequestURL() throws MalformedURLException {
-    String url = String.format(REQUEST_URI, mode.name().toLowerCase());
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Overrides the service endpoint, e.g. to point the client at a local stand-in.
+   * The endpoint is a format string, where %s is substituted with the recognition mode.
+   */
+  public void setEndpoint(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  public TrafficRecorder getRecorder() {
+    return recorder;
+  }
+
+  /**
+   * Installs a recorder that is notified of every processed request, or null to disable recording.
+   */
+  public void setRecorder(TrafficRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  private URL buildRequestURL(RecognitionMode mode, Language language, OutputFormat format)
+      throws MalformedURLException {
+    String url = String.format(endpoint, mode.name().toLowerCase());
     String params = String.format(PARAMETERS, language.name().replace('_', '-'), format.name().toLowerCase());
     return new URL(String.format("%s?%s", url, params));
   }
 
-  private HttpURLConnection connect() throws MalformedURLException, IOException {
-    HttpURLConnection connection = (HttpURLConnection) buildRequestURL().openConnection();
+  private HttpURLConnection connect(URL url) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
     connection.setDoInput(true);
     connection.setDoOutput(true); 
     connection.setRequestMethod("POST");
-    connection.setRequestProperty("Content-type", "audio/wav; codec=\"audio/pcm\"; samplerate=16000");
+    connection.setRequestProperty("Content-type", "audio/wav; codec=\"audio/pcm\"; samplerate=" + SAMPLE_RATE);
     connection.setRequestProperty("Accept", "application/json;text/xml");
     connection.setRequestProperty("Authorization", "Bearer " + auth.getToken());
     connection.setChunkedStreamingMode(0); // 0 == default chunk size
@@ -106,30 +176,70 @@ public class SpeechClientREST {
     }
   }
 
-  private HttpURLConnection upload(InputStream is, HttpURLConnection connection) throws IOException {
+  private long upload(InputStream is, HttpURLConnection connection) throws IOException {
+    long total = 0;
     try (OutputStream output = connection.getOutputStream()) {
       byte[] buffer = new byte[1024];
       int length;
       while ((length = is.read(buffer)) != -1) {
         output.write(buffer, 0, length);
+        total += length;
       }
       output.flush();
     }
-    return connection;
+    return total;
   }
 
-  private HttpURLConnection upload(Path filepath, HttpURLConnection connection) throws IOException {
+  private long upload(Path filepath, HttpURLConnection connection) throws IOException {
     try (OutputStream output = connection.getOutputStream()) {
-      Files.copy(filepath, output);
+      return Files.copy(filepath, output);
+    }
+  }
+
+  private interface Uploader {
+    long upload(HttpURLConnection connection) throws IOException;
+  }
+
+  private String process(Uploader uploader) throws IOException {
+    // the settings may be changed while a request is in flight, so the request
+    // and its record both use the values read here.
+    RecognitionMode mode = this.mode;
+    Language language = this.language;
+    OutputFormat format = this.format;
+
+    long timestamp = System.currentTimeMillis();
+    long started = System.nanoTime(), connected = 0, uploaded = 0, responded = 0;
+    long size = 0;
+    int status = -1;
+    try {
+      HttpURLConnection connection = connect(buildRequestURL(mode, language, format));
+      connected = System.nanoTime();
+      size = uploader.upload(connection);
+      uploaded = System.nanoTime();
+      status = connection.getResponseCode();
+      responded = System.nanoTime();
+      return getResponse(connection);
+    } finally {
+      // capture the snapshot once, the recorder may be swapped concurrently.
+      TrafficRecorder current = recorder;
+      if (current != null) {
+        // if the request failed, the phase it failed in is measured up to the failure.
+        long now = System.nanoTime();
+        connected = connected == 0 ? now : connected;
+        uploaded = uploaded == 0 ? now : uploaded;
+        responded = responded == 0 ? now : responded;
+        current.record(new TrafficRecord(timestamp, (connected - started) / 1_000_000,
+            (uploaded - connected) / 1_000_000, (responded - uploaded) / 1_000_000,
+            size, mode, language, format, status));
+      }
     }
-    return connection;
   }
 
   public String process(InputStream is) throws IOException {
-    return getResponse(upload(is, connect()));
+    return process(connection -> upload(is, connection));
   }
 
   public String process(Path filepath) throws IOException {
-    return getResponse(upload(filepath, connect()));
+    return process(connection -> upload(filepath, connection));
   }
 }
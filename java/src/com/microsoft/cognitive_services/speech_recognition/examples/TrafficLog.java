@@ -0,0 +1,129 @@
+/*
+Copyright (c) Microsoft Corporation
+All rights reserved. 
+MIT License
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of this 
+software and associated documentation files (the "Software"), to deal in the Software 
+without restriction, including without limitation the rights to use, copy, modify, merge, 
+publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons 
+to whom the Software is furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in all copies or 
+substantial portions of the Software.
+THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE 
+FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, 
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.cognitive_services.speech_recognition.examples;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A {@link TrafficRecorder} that appends records to a file, one tab-separated line per request.
+ * Lines starting with '#' are comments. Each log opened on a file starts a new session, marked by
+ * a '# session' comment, so that several runs can be recorded into the same file. The file can be
+ * read back with {@link #read(Path)} and replayed with {@link TrafficReplay}.
+ */
+public class TrafficLog implements TrafficRecorder, Closeable {
+
+  private static final String HEADER =
+      "# timestamp\tconnect\tupload\tlatency\tsize\tduration\tmode\tlanguage\tformat\tstatus";
+  private static final String SESSION = "# session";
+  private static final Comparator<TrafficRecord> BY_TIMESTAMP = Comparator.comparingLong(TrafficRecord::getTimestamp);
+
+  private final BufferedWriter writer;
+
+  public TrafficLog(Path filepath) throws IOException {
+    boolean empty = !Files.exists(filepath) || Files.size(filepath) == 0;
+    writer = Files.newBufferedWriter(filepath, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    if (empty) {
+      writer.write(HEADER);
+      writer.newLine();
+    }
+    writer.write(String.format("%s %s", SESSION, Instant.now()));
+    writer.newLine();
+    writer.flush();
+  }
+
+  @Override
+  public synchronized void record(TrafficRecord record) {
+    try {
+      writer.write(record.toLine());
+      writer.newLine();
+      // flush every record, so that the log survives the process being killed.
+      writer.flush();
+    } catch (IOException e) {
+      // never fail a recognition request because of the recorder.
+      System.out.format("Failed to write a traffic record. Details: %s\n", e.getMessage());
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+
+  /**
+   * Reads all records from the given file, ordered by timestamp. The idle time between sessions
+   * is collapsed: each session is shifted to start as soon as the last request of the previous one
+   * has completed, so that replaying the file does not wait for the time between recordings.
+   *
+   * @throws IllegalArgumentException if the file contains a malformed record.
+   */
+  public static List<TrafficRecord> read(Path filepath) throws IOException {
+    List<List<TrafficRecord>> sessions = new ArrayList<>();
+    List<TrafficRecord> session = new ArrayList<>();
+    sessions.add(session);
+
+    try (BufferedReader reader = Files.newBufferedReader(filepath, StandardCharsets.UTF_8)) {
+      String line;
+      for (int number = 1; (line = reader.readLine()) != null; number++) {
+        line = line.trim();
+        if (line.startsWith(SESSION)) {
+          if (!session.isEmpty()) {
+            session = new ArrayList<>();
+            sessions.add(session);
+          }
+        } else if (!line.isEmpty() && !line.startsWith("#")) {
+          try {
+            session.add(TrafficRecord.fromLine(line));
+          } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Line %d: %s", number, e.getMessage()), e);
+          }
+        }
+      }
+    }
+
+    List<TrafficRecord> records = new ArrayList<>();
+    long end = Long.MIN_VALUE;
+    for (List<TrafficRecord> current : sessions) {
+      if (current.isEmpty()) {
+        continue;
+      }
+      current.sort(BY_TIMESTAMP);
+      long gap = end == Long.MIN_VALUE ? 0 : current.get(0).getTimestamp() - end;
+      for (TrafficRecord record : current) {
+        TrafficRecord shifted = gap > 0 ? record.shift(-gap) : record;
+        records.add(shifted);
+        end = Math.max(end, shifted.getEnd());
+      }
+    }
+    records.sort(BY_TIMESTAMP);
+    return records;
+  }
+}
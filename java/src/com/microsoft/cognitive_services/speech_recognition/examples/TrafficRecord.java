@@ -0,0 +1,151 @@
+/*
+Copyright (c) Microsoft Corporation
+All rights reserved. 
+MIT License
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of this 
+software and associated documentation files (the "Software"), to deal in the Software 
+without restriction, including without limitation the rights to use, copy, modify, merge, 
+publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons 
+to whom the Software is furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in all copies or 
+substantial portions of the Software.
+THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE 
+FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, 
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.cognitive_services.speech_recognition.examples;
+
+import com.microsoft.cognitive_services.speech_recognition.examples.SpeechAPI.Language;
+import com.microsoft.cognitive_services.speech_recognition.examples.SpeechAPI.OutputFormat;
+import com.microsoft.cognitive_services.speech_recognition.examples.SpeechAPI.RecognitionMode;
+
+/**
+ * Metadata of a single recognition request: when it was issued, how much audio it carried,
+ * how it was configured and how the service responded. The audio itself is not captured.
+ */
+public class TrafficRecord {
+
+  private static final String SEPARATOR = "\t";
+
+  private final long timestamp;
+  private final long connect;
+  private final long upload;
+  private final long latency;
+  private final long size;
+  private final RecognitionMode mode;
+  private final Language language;
+  private final OutputFormat format;
+  private final int status;
+
+  /**
+   * @param timestamp wall clock time (in ms since epoch) at which the request was issued.
+   * @param connect time (in ms) from issuing the request until the connection was established,
+   * before the first audio byte was written.
+   * @param upload time (in ms) from the connection being established until all audio was written.
+   * For audio streamed in real time (e.g. from a microphone) this is the length of the utterance.
+   * @param latency time (in ms) from the end of the upload until the response status was received,
+   * excluding reading the response body.
+   * @param size number of audio bytes uploaded, including the WAV header.
+   * @param status HTTP status code returned by the service, or -1 if no response was received.
+   */
+  public TrafficRecord(long timestamp, long connect, long upload, long latency, long size,
+      RecognitionMode mode, Language language, OutputFormat format, int status) {
+    this.timestamp = timestamp;
+    this.connect = connect;
+    this.upload = upload;
+    this.latency = latency;
+    this.size = size;
+    this.mode = mode;
+    this.language = language;
+    this.format = format;
+    this.status = status;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public long getConnect() {
+    return connect;
+  }
+
+  public long getUpload() {
+    return upload;
+  }
+
+  public long getLatency() {
+    return latency;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return audio duration in ms, derived from the upload size.
+   */
+  public long getDuration() {
+    return Math.max(0, size - SpeechClientREST.WAV_HEADER_LENGTH) * 1000 / SpeechClientREST.BYTE_RATE;
+  }
+
+  public RecognitionMode getMode() {
+    return mode;
+  }
+
+  public Language getLanguage() {
+    return language;
+  }
+
+  public OutputFormat getFormat() {
+    return format;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public boolean isSuccess() {
+    return status == 200;
+  }
+
+  /**
+   * @return time (in ms since epoch) at which the response status was received, or the request failed.
+   */
+  public long getEnd() {
+    return timestamp + connect + upload + latency;
+  }
+
+  /**
+   * @return a copy of this record, issued the given number of ms later.
+   */
+  TrafficRecord shift(long offset) {
+    return new TrafficRecord(timestamp + offset, connect, upload, latency, size, mode, language, format, status);
+  }
+
+  /**
+   * Serializes this record into a single tab-separated line (without the line terminator).
+   */
+  public String toLine() {
+    return String.join(SEPARATOR, Long.toString(timestamp), Long.toString(connect), Long.toString(upload),
+        Long.toString(latency), Long.toString(size), Long.toString(getDuration()), mode.name(), language.name(),
+        format.name(), Integer.toString(status));
+  }
+
+  /**
+   * Parses a line produced by {@link #toLine()}.
+   */
+  public static TrafficRecord fromLine(String line) {
+    String[] fields = line.split(SEPARATOR);
+    if (fields.length != 10) {
+      throw new IllegalArgumentException(String.format("Malformed traffic record: '%s'", line));
+    }
+    // fields[5] (duration) is derived from the size and only kept for readability.
+    return new TrafficRecord(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+        Long.parseLong(fields[3]), Long.parseLong(fields[4]), RecognitionMode.valueOf(fields[6]),
+        Language.valueOf(fields[7]), OutputFormat.valueOf(fields[8]), Integer.parseInt(fields[9]));
+  }
+}
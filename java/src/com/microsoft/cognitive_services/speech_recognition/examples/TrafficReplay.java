@@ -0,0 +1,365 @@
+/*
+Copyright (c) Microsoft Corporation
+All rights reserved. 
+MIT License
+
+Permission is hereby granted, free of charge, to any person obtaining a copy of this 
+software and associated documentation files (the "Software"), to deal in the Software 
+without restriction, including without limitation the rights to use, copy, modify, merge, 
+publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons 
+to whom the Software is furnished to do so, subject to the following conditions:
+The above copyright notice and this permission notice shall be included in all copies or 
+substantial portions of the Software.
+THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR 
+PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE 
+FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, 
+ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.cognitive_services.speech_recognition.examples;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Re-issues a workload captured with {@link TrafficLog}, preserving the inter-arrival times of the
+ * recorded requests (optionally compressed by a speedup factor), and compares the achieved throughput
+ * and latency distribution with the recording.
+ * <p>
+ * Since the audio itself is not recorded, each request uploads silence of the recorded size. The
+ * upload is paced to take the recorded upload time divided by the speedup, so that connections are
+ * held open as long as in the recording (for audio streamed from a microphone, that is the length of
+ * the utterance). The connect time and the response latency, measured from the end of the upload,
+ * are what the recorded and replayed distributions should be compared on. How late each request was
+ * started compared to its schedule is reported as well, so that an overloaded harness can be told
+ * apart from a slow service.
+ */
+public class TrafficReplay {
+
+  private static final String LOCAL_ENDPOINT = "http://localhost:%d/speech/recognition/%%s/cognitiveservices/v1";
+  private static final String LOCAL_RESPONSE = "{\"RecognitionStatus\":\"Success\",\"DisplayText\":\"\",\"Offset\":0,\"Duration\":0}";
+
+  // the JDK default backlog (50) drops connections when replaying at high speedups.
+  private static final int LOCAL_BACKLOG = 1024;
+  // requests started later than this (p90) mean the harness itself could not keep up.
+  private static final long MAX_START_LAG = 10;
+
+  private final List<TrafficRecord> recording;
+  private final Authentication auth;
+  private final String endpoint;
+
+  private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+  private final Map<String, String> failureDetails = new ConcurrentHashMap<>();
+  private final Collection<Long> startLags = new ConcurrentLinkedQueue<>();
+
+  public TrafficReplay(List<TrafficRecord> recording, Authentication auth, String endpoint) {
+    if (recording == null || recording.isEmpty()) {
+      throw new IllegalArgumentException("Recording is empty.");
+    }
+    this.recording = recording;
+    this.auth = auth;
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * Replays the recording, with the delays between requests and the upload times divided by the
+   * given speedup, and blocks until all requests have completed.
+   *
+   * @return a record for each replayed request, in completion order.
+   */
+  public List<TrafficRecord> replay(double speedup) throws InterruptedException {
+    if (!(speedup > 0) || Double.isInfinite(speedup)) {
+      throw new IllegalArgumentException(String.format("Invalid speedup: %s", speedup));
+    }
+
+    failures.clear();
+    failureDetails.clear();
+    startLags.clear();
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    // requests may block for several seconds, so they run on their own threads
+    // to not hold back the ones scheduled after them.
+    ExecutorService workers = Executors.newCachedThreadPool();
+    Collection<TrafficRecord> results = new ConcurrentLinkedQueue<>();
+    CountDownLatch done = new CountDownLatch(recording.size());
+
+    long origin = recording.get(0).getTimestamp();
+    long started = System.nanoTime();
+    for (TrafficRecord record : recording) {
+      long delay = (long) ((record.getTimestamp() - origin) * 1000 / speedup);
+      // delays are relative to the start of the replay, not to the time spent scheduling so far.
+      long elapsed = (System.nanoTime() - started) / 1000;
+      scheduler.schedule(() -> workers.execute(() -> {
+        startLags.add(((System.nanoTime() - started) / 1000 - delay) / 1000);
+        try {
+          issue(record, speedup, results::add);
+        } finally {
+          done.countDown();
+        }
+      }), delay - elapsed, TimeUnit.MICROSECONDS);
+    }
+
+    done.await();
+    scheduler.shutdown();
+    workers.shutdown();
+    return new ArrayList<>(results);
+  }
+
+  /**
+   * @return the number of failed requests of the last replay, by exception type.
+   */
+  public Map<String, Integer> getFailures() {
+    return Collections.unmodifiableMap(new HashMap<>(failures));
+  }
+
+  /**
+   * @return the message of the first failure of the last replay, by exception type.
+   */
+  public Map<String, String> getFailureDetails() {
+    return Collections.unmodifiableMap(new HashMap<>(failureDetails));
+  }
+
+  /**
+   * @return how late (in ms) each request of the last replay was started compared to its schedule.
+   */
+  public List<Long> getStartLags() {
+    return Collections.unmodifiableList(new ArrayList<>(startLags));
+  }
+
+  private void issue(TrafficRecord record, double speedup, TrafficRecorder recorder) {
+    SpeechClientREST client = new SpeechClientREST(auth);
+    if (endpoint != null) {
+      client.setEndpoint(endpoint);
+    }
+    client.setMode(record.getMode());
+    client.setLanguage(record.getLanguage());
+    client.setFormat(record.getFormat());
+    client.setRecorder(recorder);
+    try {
+      client.process(new Silence(record.getSize(), (long) (record.getUpload() * 1_000_000 / speedup)));
+    } catch (Exception error) {
+      // the status is captured by the recorder, keep track of the cause for the report.
+      String type = error.getClass().getSimpleName();
+      failures.merge(type, 1, Integer::sum);
+      failureDetails.putIfAbsent(type, String.valueOf(error.getMessage()));
+    }
+  }
+
+  /**
+   * Exactly the given number of bytes of a WAV stream in the format the client advertises, starting
+   * with the same header the microphone input in ExtendedExample uses and followed by silence, produced
+   * no faster than the given upload time allows. Sizes below the header length yield a truncated header.
+   */
+  private static class Silence extends InputStream {
+
+    private final long size;
+    private final long uploadNanos;
+    private long position = 0;
+    private long started = 0;
+
+    Silence(long size, long uploadNanos) {
+      this.size = size;
+      this.uploadNanos = uploadNanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= size) {
+        return -1;
+      }
+      if (started == 0) {
+        started = System.nanoTime();
+      }
+
+      int count = (int) Math.min(len, size - position);
+      for (int i = 0; i < count; i++) {
+        long index = position + i;
+        b[off + i] = index < SpeechClientREST.WAV_HEADER_LENGTH ? SpeechClientREST.WAV_HEADER[(int) index] : 0;
+      }
+      position += count;
+
+      // hold the bytes back until the upload schedule reaches them.
+      long wait = started + (long) ((double) uploadNanos * position / size) - System.nanoTime();
+      if (wait > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Starts a minimal stand-in for the speech service on an ephemeral local port, which drains
+   * the uploaded audio and answers every request with an empty, successful recognition result.
+   */
+  public static HttpServer startLocalService() throws IOException {
+    byte[] response = LOCAL_RESPONSE.getBytes(StandardCharsets.UTF_8);
+    HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), LOCAL_BACKLOG);
+    server.createContext("/speech/recognition/", exchange -> {
+      try (InputStream input = exchange.getRequestBody()) {
+        byte[] buffer = new byte[16 * 1024];
+        while (input.read(buffer) != -1) {
+          // discard the audio.
+        }
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(response);
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    return server;
+  }
+
+  private static void report(String title, List<TrafficRecord> records) {
+    long start = Long.MAX_VALUE, end = Long.MIN_VALUE;
+    long[] connects = new long[records.size()];
+    long[] uploads = new long[records.size()];
+    long[] latencies = new long[records.size()];
+    int succeeded = 0;
+    for (int i = 0; i < latencies.length; i++) {
+      TrafficRecord record = records.get(i);
+      start = Math.min(start, record.getTimestamp());
+      end = Math.max(end, record.getEnd());
+      connects[i] = record.getConnect();
+      uploads[i] = record.getUpload();
+      latencies[i] = record.getLatency();
+      succeeded += record.isSuccess() ? 1 : 0;
+    }
+
+    double seconds = Math.max(1, end - start) / 1000.0;
+    System.out.format("%s: %d requests (%d succeeded) in %.1f s, %.2f requests/s\n",
+        title, records.size(), succeeded, seconds, records.size() / seconds);
+    System.out.format("  connect (ms):          %s\n", distribution(connects));
+    System.out.format("  upload (ms):           %s\n", distribution(uploads));
+    System.out.format("  response latency (ms): %s\n", distribution(latencies));
+  }
+
+  private static String distribution(long[] values) {
+    if (values.length == 0) {
+      return "n/a";
+    }
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return String.format("p50 %d, p90 %d, p99 %d, max %d", percentile(sorted, 50), percentile(sorted, 90),
+        percentile(sorted, 99), sorted[sorted.length - 1]);
+  }
+
+  private static long percentile(long[] sorted, int percentile) {
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  public static void main(String[] args) throws Exception {
+
+    if (args.length < 3) {
+      System.out.println("Usage: TrafficReplay <recording> <speedup (e.g. 1, 10, 100)> "
+          + "(<subscription key> | --local) [<endpoint>].");
+      return;
+    }
+
+    List<TrafficRecord> recording;
+    try {
+      recording = TrafficLog.read(Paths.get(args[0]));
+    } catch (IOException | IllegalArgumentException error) {
+      System.out.format("Failed to read the recording. Details: %s\n", error.getMessage());
+      return;
+    }
+
+    double speedup;
+    try {
+      speedup = Double.parseDouble(args[1]);
+    } catch (NumberFormatException error) {
+      speedup = Double.NaN;
+    }
+
+    if (recording.isEmpty()) {
+      System.out.println("Nothing to replay.");
+      return;
+    }
+    if (!(speedup > 0) || Double.isInfinite(speedup)) {
+      System.out.format("Invalid speedup: %s.\n", args[1]);
+      return;
+    }
+
+    HttpServer server = null;
+    Authentication auth;
+    String endpoint = args.length > 3 ? args[3] : null;
+    if ("--local".equals(args[2])) {
+      server = startLocalService();
+      if (endpoint == null) {
+        endpoint = String.format(LOCAL_ENDPOINT, server.getAddress().getPort());
+      }
+      // the stand-in does not check the token, so there is no need to fetch one.
+      auth = new Authentication(null) {
+        @Override
+        protected void fetchToken() {
+          setToken("local");
+        }
+      };
+    } else {
+      auth = new RenewableAuthentication(args[2]);
+    }
+
+    report("Recorded", recording);
+    long truncated = recording.stream().filter(record -> record.getSize() < SpeechClientREST.WAV_HEADER_LENGTH).count();
+    if (truncated > 0) {
+      System.out.format("  %d requests smaller than a WAV header (e.g. failed connects) are replayed "
+          + "with their recorded size.\n", truncated);
+    }
+
+    TrafficReplay replay = new TrafficReplay(recording, auth, endpoint);
+    List<TrafficRecord> replayed = replay.replay(speedup);
+    report(String.format("Replayed at %sx", args[1]), replayed);
+    long[] lags = replay.getStartLags().stream().mapToLong(Long::longValue).toArray();
+    System.out.format("  start lag (ms):        %s\n", distribution(lags));
+    Arrays.sort(lags);
+    if (lags.length > 0 && percentile(lags, 90) > MAX_START_LAG) {
+      System.out.println("  Warning: requests were started late, the harness could not sustain this speedup. "
+          + "The latencies above include its own overload.");
+    }
+    Map<String, String> details = replay.getFailureDetails();
+    replay.getFailures().forEach((type, count) ->
+        System.out.format("  %d failed with %s. Details: %s\n", count, type, details.get(type)));
+
+    if (server != null) {
+      server.stop(0);
+    }
+    // RenewableAuthentication and the stand-in keep non-daemon threads alive.
+    System.exit(0);
+  }
+}